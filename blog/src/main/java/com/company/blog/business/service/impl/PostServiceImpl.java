@@ -7,35 +7,48 @@ import com.company.blog.business.service.PostService;
 import com.company.blog.model.Post;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Log4j2
 @Service
+@ManagedResource(objectName = "com.company.blog:type=PostService,name=postLoads",
+        description = "Coalescing of concurrent post loads")
 public class PostServiceImpl implements PostService {
+    private static final String ALL_POSTS_KEY = "all";
+
     @Autowired
     PostRepository postRepository;
     @Autowired
     PostMapStructMapper postMapStructMapper;
 
+    private final SingleFlight<Long, Optional<Post>> postByIdLoads = new SingleFlight<>("Post by id");
+    private final SingleFlight<String, List<Post>> allPostsLoads = new SingleFlight<>("All posts");
+
     @Override
     public Optional<Post> findPostByID(Long id) {
-        Optional<Post> postByID = postRepository.findById(id)
-                .flatMap(post -> Optional.ofNullable(postMapStructMapper.postDAOToPost(post)));
+        Optional<Post> postByID = postByIdLoads.load(id, () -> postRepository.findById(id)
+                .flatMap(post -> Optional.ofNullable(postMapStructMapper.postDAOToPost(post))));
         log.info("Post with id {} is {}", id, postByID);
         return postByID;
     }
 
     @Override
     public List<Post> findAllPosts() {
-        List<PostDAO> postDAOList = postRepository.findAll();
-        log.info("Get post list. Size is: {}", postDAOList::size);
-        return postDAOList.stream().map(postMapStructMapper::postDAOToPost).collect(Collectors.toList());
+        return allPostsLoads.load(ALL_POSTS_KEY, () -> {
+            List<PostDAO> postDAOList = postRepository.findAll();
+            log.info("Get post list. Size is: {}", postDAOList::size);
+            return postDAOList.stream().map(postMapStructMapper::postDAOToPost)
+                    .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        });
     }
 
     @Override
@@ -44,17 +57,58 @@ public class PostServiceImpl implements PostService {
             log.error("Post conflict exception is thrown: {}", HttpStatus.CONFLICT);
             throw new HttpClientErrorException(HttpStatus.CONFLICT);
         }
-        PostDAO postSaved = postRepository.save(postMapStructMapper.postToPostDAO(post));
+        PostDAO postSaved;
+        beginWrite();
+        try {
+            postSaved = postRepository.save(postMapStructMapper.postToPostDAO(post));
+        } finally {
+            endWrite();
+        }
         log.info("New post saved: {}", () -> postSaved);
         return postMapStructMapper.postDAOToPost(postSaved);
     }
 
     @Override
     public void deletePost(Long id) {
-        postRepository.deleteById(id);
+        beginWrite();
+        try {
+            postRepository.deleteById(id);
+        } finally {
+            endWrite();
+        }
         log.info("Post with id {} was deleted", id);
     }
 
+    @ManagedAttribute(description = "Post by id loads that queried the database")
+    public long getPostByIdLoadCount() {
+        return postByIdLoads.getLoadCount();
+    }
+
+    @ManagedAttribute(description = "Post by id calls that joined an in-flight load")
+    public long getPostByIdCoalescedCount() {
+        return postByIdLoads.getCoalescedCount();
+    }
+
+    @ManagedAttribute(description = "Post list loads that queried the database")
+    public long getAllPostsLoadCount() {
+        return allPostsLoads.getLoadCount();
+    }
+
+    @ManagedAttribute(description = "Post list calls that joined an in-flight load")
+    public long getAllPostsCoalescedCount() {
+        return allPostsLoads.getCoalescedCount();
+    }
+
+    private void beginWrite() {
+        postByIdLoads.beginWrite();
+        allPostsLoads.beginWrite();
+    }
+
+    private void endWrite() {
+        postByIdLoads.endWrite();
+        allPostsLoads.endWrite();
+    }
+
     public boolean hasNoMatch(Post post) {
         return postRepository.findAll().stream()
                 .noneMatch(t -> !t.getId().equals(post.getId()) &&
@@ -0,0 +1,119 @@
+package com.company.blog.business.service.impl;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader,
+ * callers arriving while it is in flight wait for and share its result.
+ * Nothing is cached once the load completes. Writers wrap their changes in
+ * {@link #beginWrite()} and {@link #endWrite()}: a load that overlapped a write
+ * is never joined, so callers arriving after a write always start a fresh load.
+ * Every caller receives the same value instance, so shared values must be treated as read-only.
+ */
+@Log4j2
+class SingleFlight<K, V> {
+    private final String name;
+    private final ConcurrentMap<K, InFlightCall<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicInteger activeWrites = new AtomicInteger();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    SingleFlight(String name) {
+        this.name = name;
+    }
+
+    V load(K key, Supplier<V> loader) {
+        if (key == null) {
+            return loader.get();
+        }
+        long startGeneration = generation.get();
+        InFlightCall<V> call = new InFlightCall<>(startGeneration, activeWrites.get() == 0);
+        InFlightCall<V> leader = inFlight.compute(key, (k, existing) -> isJoinable(existing) ? existing : call);
+        if (leader != call) {
+            leader.joined.incrementAndGet();
+            long coalesced = coalescedCount.incrementAndGet();
+            log.debug("{} load for key {} joined in-flight call. Coalesced so far: {}", name, key, coalesced);
+            return await(leader.result);
+        }
+
+        loadCount.incrementAndGet();
+        try {
+            V value = loader.get();
+            call.result.complete(value);
+            logServed(key, call);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.result.completeExceptionally(e);
+            logServed(key, call);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    void beginWrite() {
+        activeWrites.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    void endWrite() {
+        generation.incrementAndGet();
+        activeWrites.decrementAndGet();
+    }
+
+    long getLoadCount() {
+        return loadCount.get();
+    }
+
+    long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    private boolean isJoinable(InFlightCall<V> call) {
+        return call != null && call.startedWithoutWrites && call.generation == generation.get();
+    }
+
+    private void logServed(K key, InFlightCall<V> call) {
+        int joined = call.joined.get();
+        if (joined > 0) {
+            log.info("{} load for key {} served {} callers. Loads: {}, coalesced calls: {}",
+                    name, key, joined + 1, loadCount.get(), coalescedCount.get());
+        }
+    }
+
+    private V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class InFlightCall<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger joined = new AtomicInteger();
+        private final long generation;
+        private final boolean startedWithoutWrites;
+
+        private InFlightCall(long generation, boolean startedWithoutWrites) {
+            this.generation = generation;
+            this.startedWithoutWrites = startedWithoutWrites;
+        }
+    }
+}
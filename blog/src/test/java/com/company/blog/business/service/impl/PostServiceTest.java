@@ -4,6 +4,7 @@ import com.company.blog.business.mappers.PostMapStructMapper;
 import com.company.blog.business.repository.PostRepository;
 import com.company.blog.business.repository.model.PostDAO;
 import com.company.blog.model.Post;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +19,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +36,8 @@ import static org.mockito.Mockito.*;
 @SpringBootTest
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class PostServiceTest {
+    private static final int CONCURRENT_CALLS = 20;
+
     @Mock
     private PostRepository repository;
     @InjectMocks
@@ -50,6 +63,11 @@ public class PostServiceTest {
         postDAOList = createPostDAOList(postDAO);
     }
 
+    @AfterEach
+    public void cleanup() {
+        reset(repository, mapper);
+    }
+
     @Test
     void testFindAllPosts() {
         when(repository.findAll()).thenReturn(postDAOList);
@@ -85,6 +103,125 @@ public class PostServiceTest {
         verify(repository, times(1)).findById(anyLong());
     }
 
+    @Test
+    void testFindPostByIdCoalescesConcurrentLoads() throws Exception {
+        BlockingLoad load = new BlockingLoad();
+        when(repository.findById(1L)).thenAnswer(invocation -> load.block(Optional.of(postDAO)));
+        when(mapper.postDAOToPost(postDAO)).thenReturn(post);
+
+        List<Future<Optional<Post>>> futures =
+                submitConcurrently(() -> service.findPostByID(1L), service::getPostByIdCoalescedCount, load);
+
+        for (Future<Optional<Post>> future : futures) {
+            assertEquals(post, future.get(5, TimeUnit.SECONDS).get());
+        }
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testFindAllPostsCoalescesConcurrentLoads() throws Exception {
+        BlockingLoad load = new BlockingLoad();
+        when(repository.findAll()).thenAnswer(invocation -> load.block(postDAOList));
+        when(mapper.postDAOToPost(postDAO)).thenReturn(post);
+
+        List<Future<List<Post>>> futures =
+                submitConcurrently(service::findAllPosts, service::getAllPostsCoalescedCount, load);
+
+        for (Future<List<Post>> future : futures) {
+            List<Post> posts = future.get(5, TimeUnit.SECONDS);
+            assertEquals(3, posts.size());
+            assertThrows(UnsupportedOperationException.class, () -> posts.add(post));
+        }
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void testFindPostByIdCoalescedLoadFailure() throws Exception {
+        BlockingLoad load = new BlockingLoad();
+        when(repository.findById(1L)).thenAnswer(invocation -> {
+            load.block(null);
+            throw new IllegalStateException();
+        });
+
+        List<Future<Optional<Post>>> futures =
+                submitConcurrently(() -> service.findPostByID(1L), service::getPostByIdCoalescedCount, load);
+
+        for (Future<Optional<Post>> future : futures) {
+            ExecutionException exception =
+                    assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+        verify(repository, times(1)).findById(1L);
+
+        doReturn(Optional.of(postDAO)).when(repository).findById(1L);
+        when(mapper.postDAOToPost(postDAO)).thenReturn(post);
+        assertEquals(post, service.findPostByID(1L).get());
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testFindPostByIdAfterSaveDoesNotJoinEarlierLoad() throws Exception {
+        BlockingLoad load = stubStaleThenSavedPost();
+        when(repository.save(postDAO)).thenReturn(postDAO);
+        long coalescedBefore = service.getPostByIdCoalescedCount();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Post>> staleLoad = executor.submit(() -> service.findPostByID(1L));
+            load.awaitStarted();
+
+            service.savePost(post);
+
+            assertEquals(post, service.findPostByID(1L).get());
+            assertEquals(coalescedBefore, service.getPostByIdCoalescedCount());
+            verify(repository, times(2)).findById(1L);
+
+            load.release();
+            assertFalse(staleLoad.get(5, TimeUnit.SECONDS).isPresent());
+        } finally {
+            load.release();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFindPostByIdDuringSaveDoesNotJoinEarlierLoad() throws Exception {
+        BlockingLoad load = stubStaleThenSavedPost();
+        long coalescedBefore = service.getPostByIdCoalescedCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicReference<Optional<Post>> readAfterCommit = new AtomicReference<>();
+        when(repository.save(postDAO)).thenAnswer(invocation -> {
+            readAfterCommit.set(executor.submit(() -> service.findPostByID(1L)).get(5, TimeUnit.SECONDS));
+            return postDAO;
+        });
+        try {
+            Future<Optional<Post>> staleLoad = executor.submit(() -> service.findPostByID(1L));
+            load.awaitStarted();
+
+            service.savePost(post);
+
+            assertEquals(post, readAfterCommit.get().get());
+            assertEquals(coalescedBefore, service.getPostByIdCoalescedCount());
+            verify(repository, times(2)).findById(1L);
+
+            load.release();
+            assertFalse(staleLoad.get(5, TimeUnit.SECONDS).isPresent());
+        } finally {
+            load.release();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFindPostByNullIdIsNotCoalesced() {
+        long loadsBefore = service.getPostByIdLoadCount();
+        when(repository.findById(isNull())).thenReturn(Optional.empty());
+        assertFalse(service.findPostByID(null).isPresent());
+        verify(repository, times(1)).findById(isNull());
+        assertEquals(loadsBefore, service.getPostByIdLoadCount());
+    }
+
     @Test
     void testSavePost() {
         when(repository.save(postDAO)).thenReturn(postDAO);
@@ -124,6 +261,41 @@ public class PostServiceTest {
         assertThrows(IllegalArgumentException.class, () -> service.deletePost(anyLong()));
     }
 
+    private <T> List<Future<T>> submitConcurrently(Callable<T> call, LongSupplier coalescedCount,
+                                                   BlockingLoad load) throws InterruptedException {
+        long coalescedBefore = coalescedCount.getAsLong();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            futures.add(executor.submit(call));
+            load.awaitStarted();
+            for (int i = 1; i < CONCURRENT_CALLS; i++) {
+                futures.add(executor.submit(call));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (coalescedCount.getAsLong() - coalescedBefore < CONCURRENT_CALLS - 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(CONCURRENT_CALLS - 1, coalescedCount.getAsLong() - coalescedBefore);
+            return futures;
+        } finally {
+            load.release();
+            executor.shutdown();
+        }
+    }
+
+    private BlockingLoad stubStaleThenSavedPost() {
+        BlockingLoad load = new BlockingLoad();
+        AtomicBoolean firstLoad = new AtomicBoolean(true);
+        when(repository.findById(1L)).thenAnswer(invocation ->
+                firstLoad.getAndSet(false) ? load.block(Optional.empty()) : Optional.of(postDAO));
+        when(repository.findAll()).thenReturn(postDAOList);
+        when(mapper.postToPostDAO(post)).thenReturn(postDAO);
+        when(mapper.postDAOToPost(postDAO)).thenReturn(post);
+        return load;
+    }
+
     private List<PostDAO> createPostDAOList(PostDAO postDAO) {
         List<PostDAO> postDAOList = new ArrayList<>();
         postDAOList.add(postDAO);
@@ -157,4 +329,23 @@ public class PostServiceTest {
         post.setTitle(title);
         return post;
     }
+
+    private static class BlockingLoad {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        <T> T block(T value) throws InterruptedException {
+            started.countDown();
+            released.await(5, TimeUnit.SECONDS);
+            return value;
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
 }